@@ -1,52 +1,221 @@
 package ru.ifmo.rain.glukhov.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
+
+public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    static private final int PARALLEL_SORT_THRESHOLD = 1 << 16;
 
-public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
     private final List<E> array;
     private final Comparator<? super E> comparator;
+    private final int from;
+    private final int to;
+    private final boolean descending;
+    private final EytzingerIndex<E> index;
+    private final PrefixCache prefixes;
 
     public ArraySet(Collection<? extends E> collection) {
         this(collection, null);
     }
 
     public ArraySet() {
-        array = new ArrayList<>();
-        comparator = null;
+        this(Collections.emptyList(), null);
     }
 
     public ArraySet(Collection<? extends E> collection, Comparator<? super E> comparator) {
-        TreeSet<E> tmp = new TreeSet<>(comparator);
-        tmp.addAll(collection);
-        array = new ArrayList<>(tmp);
+        array = sortedDistinct(collection, comparator);
         this.comparator = comparator;
+        this.from = 0;
+        this.to = array.size();
+        this.descending = false;
+        this.index = null;
+        this.prefixes = null;
     }
 
-    private ArraySet(List<E> list, Comparator<? super E> comparator) {
-        this.array = list;
+    private ArraySet(List<E> array, Comparator<? super E> comparator, int from, int to, boolean descending,
+                     EytzingerIndex<E> index, PrefixCache prefixes) {
+        this.array = array;
         this.comparator = comparator;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+        this.index = index;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Set over <tt>sorted</tt>, which must already be ordered by <tt>comparator</tt> and distinct.
+     */
+    static <E> ArraySet<E> ofSorted(List<E> sorted, Comparator<? super E> comparator) {
+        return new ArraySet<>(sorted, comparator, 0, sorted.size(), false, null, null);
+    }
+
+    /**
+     * Element at position <tt>i</tt> in iteration order.
+     */
+    E at(int i) {
+        return descending ? array.get(to - 1 - i) : array.get(from + i);
+    }
+
+    /**
+     * Same set and views searched through an Eytzinger-ordered copy of the elements.
+     * Pays off for sets much larger than CPU caches, costs an extra reference and int per element.
+     */
+    public ArraySet<E> withEytzingerIndex() {
+        if (index != null) {
+            return this;
+        }
+        return new ArraySet<>(array, comparator, from, to, descending, new EytzingerIndex<>(array, comparator), prefixes);
+    }
+
+    /**
+     * Same set and views with four chars of every element packed into a <tt>long</tt>.
+     * Binary search compares the packed values and calls <tt>compareTo</tt> only on ties.
+     * Only sets of <tt>String</tt>s in natural order qualify, and the Eytzinger index, if any, takes precedence.
+     *
+     * @throws UnsupportedOperationException if the set has a comparator or an element is not a <tt>String</tt>
+     */
+    public ArraySet<E> withPrefixCache() {
+        if (prefixes != null) {
+            return this;
+        }
+        if (comparator != null) {
+            throw new UnsupportedOperationException("prefix cache needs natural ordering");
+        }
+        for (E element : array) {
+            if (!(element instanceof String)) {
+                throw new UnsupportedOperationException("prefix cache needs String elements");
+            }
+        }
+        return new ArraySet<>(array, comparator, from, to, descending, index, new PrefixCache(array));
+    }
+
+    /**
+     * Sorts and deduplicates <tt>collection</tt> keeping the first of equal elements, as <tt>TreeSet</tt> does.
+     * Sorted sets with the same comparator are copied as is, already sorted input is only deduplicated.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> sortedDistinct(Collection<? extends E> collection, Comparator<? super E> comparator) {
+        E[] data = (E[]) collection.toArray();
+        if (collection instanceof SortedSet && Objects.equals(comparator, ((SortedSet<?>) collection).comparator())) {
+            return Arrays.asList(data);
+        }
+        Comparator<? super E> order = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        if (data.length == 1) {
+            order.compare(data[0], data[0]);
+        }
+        boolean sorted = true;
+        for (int i = 1; i < data.length && sorted; i++) {
+            sorted = order.compare(data[i - 1], data[i]) <= 0;
+        }
+        if (!sorted) {
+            if (data.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(data, order);
+            } else {
+                Arrays.sort(data, order);
+            }
+        }
+        int size = data.length == 0 ? 0 : 1;
+        for (int i = 1; i < data.length; i++) {
+            if (order.compare(data[size - 1], data[i]) != 0) {
+                data[size++] = data[i];
+            }
+        }
+        return Arrays.asList(size == data.length ? data : Arrays.copyOf(data, size));
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E first, E second) {
+        if (comparator == null) {
+            return ((Comparable<? super E>) first).compareTo(second);
+        }
+        return comparator.compare(first, second);
+    }
+
+    private int orderedCompare(E first, E second) {
+        return descending ? compare(second, first) : compare(first, second);
+    }
+
+    /**
+     * First index in window whose element is not less than <tt>key</tt> in ascending order.
+     */
+    private int lowerBound(E key) {
+        return search(key, false);
+    }
+
+    /**
+     * First index in window whose element is greater than <tt>key</tt> in ascending order.
+     */
+    private int upperBound(E key) {
+        return search(key, true);
+    }
+
+    private int search(E key, boolean strict) {
+        if (index != null) {
+            return Math.min(Math.max(index.search(key, strict), from), to);
+        }
+        long keyPrefix = prefixes != null ? prefixes.key((String) key) : 0;
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int cmp = prefixes != null ? prefixes.compare(middle, keyPrefix) : 0;
+            if (cmp == 0) {
+                cmp = compare(array.get(middle), key);
+            }
+            if (cmp < 0 || strict && cmp == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private E element(int index) {
+        return from <= index && index < to ? array.get(index) : null;
     }
 
     public E first() {
-        if (array.isEmpty()) {
+        if (from == to) {
             throw new NoSuchElementException("first");
         }
-        return array.get(0);
+        return descending ? array.get(to - 1) : array.get(from);
     }
 
     public E last() {
-        if (array.isEmpty()) {
+        if (from == to) {
             throw new NoSuchElementException("last");
         }
-        return array.get(array.size() - 1);
+        return descending ? array.get(from) : array.get(to - 1);
     }
 
-    private int reverseIndex(int i) {
-        if (i < 0) {
-            return -i - 1;
-        } else {
-            return i;
-        }
+    public E lower(E e) {
+        argumentCheck("lower", 1, e, null);
+        return descending ? element(upperBound(e)) : element(lowerBound(e) - 1);
+    }
+
+    public E floor(E e) {
+        argumentCheck("floor", 1, e, null);
+        return descending ? element(lowerBound(e)) : element(upperBound(e) - 1);
+    }
+
+    public E ceiling(E e) {
+        argumentCheck("ceiling", 1, e, null);
+        return descending ? element(upperBound(e) - 1) : element(lowerBound(e));
+    }
+
+    public E higher(E e) {
+        argumentCheck("higher", 1, e, null);
+        return descending ? element(lowerBound(e) - 1) : element(upperBound(e));
+    }
+
+    public E pollFirst() {
+        throw new UnsupportedOperationException("pollFirst");
+    }
+
+    public E pollLast() {
+        throw new UnsupportedOperationException("pollLast");
     }
 
     private void argumentCheck(String where, int amountElements, E firstElement, E secondElement) {
@@ -56,74 +225,199 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
             throw new NullPointerException("in " + where + " second argument is null");
         } else if (amountElements == 2 && firstElement == null) {
             throw new NullPointerException("in " + where + " first and second argument are null");
-        } else if (amountElements == 2) {
-            int ans = 0;
-            if (comparator == null) {
-                ans = ((Comparable <E>) firstElement).compareTo(secondElement);
-            } else {
-                ans = comparator.compare(firstElement, secondElement);
-            }
-            if (ans > 0) {
-                throw new IllegalArgumentException("in " + where + " illegal arguments");
-            }
+        } else if (amountElements == 2 && orderedCompare(firstElement, secondElement) > 0) {
+            throw new IllegalArgumentException("in " + where + " illegal arguments");
         }
     }
 
-    private List<E> subList(E fromElement, E toElement, String name) {
-        int from = 0;
-        int to = array.size();
-        if (fromElement != null) {
-            from = reverseIndex(Collections.binarySearch(array, fromElement, comparator));
-        }
-        if (toElement != null) {
-            to = reverseIndex(Collections.binarySearch(array, toElement, comparator));
-        }
-        switch (name) {
-            case "headSet":
-                argumentCheck(name, 1, toElement, null);
-                break;
-            case "tailSet":
-                argumentCheck(name, 1, fromElement, null);
-                break;
-            case "subSet":
-                argumentCheck(name, 2, fromElement, toElement);
-                break;
-        }
-        return array.subList(from, to);
+    /**
+     * View of elements between <tt>low</tt> and <tt>high</tt> in ascending order, <tt>null</tt> bound is open.
+     */
+    private ArraySet<E> window(E low, boolean lowInclusive, E high, boolean highInclusive) {
+        int start = low == null ? from : lowInclusive ? lowerBound(low) : upperBound(low);
+        int end = high == null ? to : highInclusive ? upperBound(high) : lowerBound(high);
+        return new ArraySet<>(array, comparator, start, Math.max(start, end), descending, index, prefixes);
+    }
+
+    public ArraySet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        argumentCheck("subSet", 2, fromElement, toElement);
+        return descending
+                ? window(toElement, toInclusive, fromElement, fromInclusive)
+                : window(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public ArraySet<E> headSet(E toElement, boolean inclusive) {
+        argumentCheck("headSet", 1, toElement, null);
+        return descending ? window(toElement, inclusive, null, false) : window(null, false, toElement, inclusive);
+    }
+
+    public ArraySet<E> tailSet(E fromElement, boolean inclusive) {
+        argumentCheck("tailSet", 1, fromElement, null);
+        return descending ? window(null, false, fromElement, inclusive) : window(fromElement, inclusive, null, false);
     }
 
     public ArraySet<E> headSet(E toElement) {
-        return new ArraySet<>(subList(null, toElement, "headSet"), comparator);
+        return headSet(toElement, false);
     }
 
     public ArraySet<E> tailSet(E fromElement) {
-        return new ArraySet<>(subList(fromElement, null, "tailSet"), comparator);
+        return tailSet(fromElement, true);
     }
 
     public ArraySet<E> subSet(E fromElement, E toElement) {
-        return new ArraySet<>(subList(fromElement, toElement, "subSet"), comparator);
+        return subSet(fromElement, true, toElement, false);
     }
 
+    public ArraySet<E> descendingSet() {
+        return new ArraySet<>(array, comparator, from, to, !descending, index, prefixes);
+    }
+
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @SuppressWarnings("unchecked")
     public boolean contains(Object object) {
         if (object == null) {
             throw new NullPointerException("object is null");
         } else {
-            return Collections.binarySearch(array, (E) object, comparator) >= 0;
+            int index = lowerBound((E) object);
+            return index < to && compare(array.get(index), (E) object) == 0;
         }
     }
 
+    /**
+     * Bit <tt>i</tt> of the result is set when the <tt>i</tt>-th probe is in this set.
+     * Probes ascending in set order are answered in one merge-like pass, galloping from the previous probe's position,
+     * so a sorted batch costs far less than separate lookups. A probe out of order restarts with a regular search.
+     */
+    public BitSet containsEach(List<? extends E> probes) {
+        BitSet result = new BitSet(probes.size());
+        Comparator<? super E> order = setOrder();
+        int size = size();
+        int cursor = 0;
+        int i = 0;
+        E previous = null;
+        for (E probe : probes) {
+            if (probe == null) {
+                throw new NullPointerException("probe " + i + " is null");
+            }
+            if (previous != null && order.compare(previous, probe) <= 0) {
+                cursor = ArraySets.lowerBound(this, cursor, size, probe, order);
+            } else {
+                cursor = position(probe);
+            }
+            if (cursor < size && order.compare(at(cursor), probe) == 0) {
+                result.set(i);
+            }
+            previous = probe;
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Position in iteration order of the first element not less than <tt>key</tt> in set order.
+     */
+    private int position(E key) {
+        return descending ? to - upperBound(key) : lowerBound(key) - from;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Comparator<? super E> setOrder() {
+        Comparator<? super E> order = comparator();
+        return order != null ? order : (Comparator<? super E>) Comparator.naturalOrder();
+    }
+
     public Comparator<? super E> comparator() {
+        if (descending) {
+            return Collections.reverseOrder(comparator);
+        }
         return comparator;
     }
 
     public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next = descending ? to - 1 : from;
+
+            @Override
+            public boolean hasNext() {
+                return descending ? next >= from : next < to;
+            }
 
-        return Collections.unmodifiableCollection(array).iterator();
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return descending ? array.get(next--) : array.get(next++);
+            }
+        };
     }
 
     public int size() {
 
-        return array.size();
+        return to - from;
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator(0, size());
+    }
+
+    /**
+     * Splits by halving the range of positions, so every part knows its exact size.
+     */
+    private class ArraySpliterator implements Spliterator<E> {
+        private int next;
+        private final int end;
+
+        ArraySpliterator(int next, int end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (next < end) {
+                action.accept(at(next++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (next < end) {
+                action.accept(at(next++));
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int middle = (next + end) >>> 1;
+            if (middle <= next) {
+                return null;
+            }
+            Spliterator<E> prefix = new ArraySpliterator(next, middle);
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator();
+        }
     }
 
 
@@ -0,0 +1,62 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+
+/**
+ * Lookup latency of ArraySet by set size, with and without the Eytzinger index.
+ * Usage: <tt>ArraySetBenchmark [maxSize]</tt>, sizes are powers of four from 1K up to <tt>maxSize</tt> (4M by default).
+ */
+public class ArraySetBenchmark {
+    static private final int WARMUP = 2;
+    static private final int MEASUREMENTS = 5;
+    static private final int PROBES = 1 << 20;
+
+    public static void main(String[] args) {
+        int maxSize = 1 << 22;
+        if (args != null && args.length > 0 && args[0] != null) {
+            try {
+                maxSize = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Error: incorrect size " + args[0]);
+                return;
+            }
+        }
+        Random random = new Random(4875043285743285204L);
+        for (int size = 1 << 10; size <= maxSize; size <<= 2) {
+            List<Integer> data = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                data.add(random.nextInt());
+            }
+            Integer[] probes = new Integer[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                probes[i] = random.nextBoolean() ? data.get(random.nextInt(size)) : random.nextInt();
+            }
+            ArraySet<Integer> plain = new ArraySet<>(data);
+            ArraySet<Integer> eytzinger = plain.withEytzingerIndex();
+            System.out.println(String.format("size=%-9d binary %s   eytzinger %s",
+                    size, measure(plain, probes), measure(eytzinger, probes)));
+        }
+    }
+
+    /**
+     * Best time per lookup, reported along with the number of probes found so that both variants can be checked to agree.
+     */
+    private static String measure(Set<Integer> set, Integer[] probes) {
+        long best = Long.MAX_VALUE;
+        int hits = 0;
+        for (int i = 0; i < WARMUP + MEASUREMENTS; i++) {
+            long start = System.nanoTime();
+            hits = 0;
+            for (Integer probe : probes) {
+                if (set.contains(probe)) {
+                    hits++;
+                }
+            }
+            long time = System.nanoTime() - start;
+            if (i >= WARMUP) {
+                best = Math.min(best, time);
+            }
+        }
+        return String.format("%7.1f ns/op (%d hits)", (double) best / probes.length, hits);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Set algebra on {@link ArraySet}s by merging their sorted arrays.
+ * Both arguments must be ordered by equal comparators, the result uses the same ordering.
+ * Very skewed sizes are merged by galloping through the larger set,
+ * large inputs are split by pivots and the parts are merged in parallel.
+ */
+public final class ArraySets {
+    static private final int GALLOP_RATIO = 16;
+    static private final int PARALLEL_THRESHOLD = 1 << 16;
+    static private final int PARTS_PER_THREAD = 4;
+
+    private enum Operation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    private ArraySets() {
+    }
+
+    public static <E> ArraySet<E> union(ArraySet<E> first, ArraySet<E> second) {
+        return apply(Operation.UNION, first, second);
+    }
+
+    public static <E> ArraySet<E> intersection(ArraySet<E> first, ArraySet<E> second) {
+        return apply(Operation.INTERSECTION, first, second);
+    }
+
+    /**
+     * Elements of <tt>first</tt> which are not in <tt>second</tt>.
+     */
+    public static <E> ArraySet<E> difference(ArraySet<E> first, ArraySet<E> second) {
+        return apply(Operation.DIFFERENCE, first, second);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> ArraySet<E> apply(Operation operation, ArraySet<E> first, ArraySet<E> second) {
+        if (!Objects.equals(first.comparator(), second.comparator())) {
+            throw new IllegalArgumentException("sets are ordered by different comparators");
+        }
+        Comparator<? super E> order = first.comparator() != null
+                ? first.comparator()
+                : (Comparator<? super E>) Comparator.naturalOrder();
+        int firstSize = first.size();
+        int secondSize = second.size();
+        boolean gallop = Math.max(firstSize, secondSize) / GALLOP_RATIO >= Math.min(firstSize, secondSize);
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<E> result;
+        if (threads > 1 && firstSize + secondSize >= PARALLEL_THRESHOLD) {
+            result = parallelMerge(operation, first, second, order, gallop, threads * PARTS_PER_THREAD);
+        } else {
+            result = new ArrayList<>(operation == Operation.UNION ? firstSize + secondSize : firstSize);
+            merge(operation, first, 0, firstSize, second, 0, secondSize, order, gallop, result);
+        }
+        return ArraySet.ofSorted(result, first.comparator());
+    }
+
+    /**
+     * Cuts the larger set into equal parts and the smaller one at the same pivots,
+     * so equal elements always fall into the same part.
+     */
+    private static <E> List<E> parallelMerge(Operation operation, ArraySet<E> first, ArraySet<E> second,
+                                             Comparator<? super E> order, boolean gallop, int parts) {
+        boolean firstLarger = first.size() >= second.size();
+        ArraySet<E> larger = firstLarger ? first : second;
+        ArraySet<E> smaller = firstLarger ? second : first;
+        int[] largerCuts = new int[parts + 1];
+        int[] smallerCuts = new int[parts + 1];
+        for (int i = 1; i < parts; i++) {
+            largerCuts[i] = (int) ((long) larger.size() * i / parts);
+            smallerCuts[i] = lowerBound(smaller, smallerCuts[i - 1], smaller.size(), larger.at(largerCuts[i]), order);
+        }
+        largerCuts[parts] = larger.size();
+        smallerCuts[parts] = smaller.size();
+        int[] firstCuts = firstLarger ? largerCuts : smallerCuts;
+        int[] secondCuts = firstLarger ? smallerCuts : largerCuts;
+        List<List<E>> merged = IntStream.range(0, parts).parallel()
+                .mapToObj(i -> {
+                    List<E> part = new ArrayList<>();
+                    merge(operation, first, firstCuts[i], firstCuts[i + 1],
+                            second, secondCuts[i], secondCuts[i + 1], order, gallop, part);
+                    return part;
+                })
+                .collect(Collectors.toList());
+        List<E> result = new ArrayList<>(merged.stream().mapToInt(List::size).sum());
+        merged.forEach(result::addAll);
+        return result;
+    }
+
+    private static <E> void merge(Operation operation, ArraySet<E> first, int i, int firstEnd,
+                                  ArraySet<E> second, int j, int secondEnd,
+                                  Comparator<? super E> order, boolean gallop, List<E> result) {
+        while (i < firstEnd && j < secondEnd) {
+            int cmp = order.compare(first.at(i), second.at(j));
+            if (cmp < 0) {
+                int end = gallop ? lowerBound(first, i, firstEnd, second.at(j), order) : i + 1;
+                if (operation != Operation.INTERSECTION) {
+                    copy(first, i, end, result);
+                }
+                i = end;
+            } else if (cmp > 0) {
+                int end = gallop ? lowerBound(second, j, secondEnd, first.at(i), order) : j + 1;
+                if (operation == Operation.UNION) {
+                    copy(second, j, end, result);
+                }
+                j = end;
+            } else {
+                if (operation != Operation.DIFFERENCE) {
+                    result.add(first.at(i));
+                }
+                i++;
+                j++;
+            }
+        }
+        if (operation != Operation.INTERSECTION) {
+            copy(first, i, firstEnd, result);
+        }
+        if (operation == Operation.UNION) {
+            copy(second, j, secondEnd, result);
+        }
+    }
+
+    private static <E> void copy(ArraySet<E> set, int from, int to, List<E> result) {
+        for (int i = from; i < to; i++) {
+            result.add(set.at(i));
+        }
+    }
+
+    /**
+     * First position in <tt>[from, to)</tt> not less than <tt>key</tt>, found by exponential then binary search.
+     */
+    static <E> int lowerBound(ArraySet<E> set, int from, int to, E key, Comparator<? super E> order) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && order.compare(set.at(high), key) < 0) {
+            low = high + 1;
+            high = to - from > step ? from + step : to;
+            step <<= 1;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (order.compare(set.at(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
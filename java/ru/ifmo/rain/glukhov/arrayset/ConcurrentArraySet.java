@@ -0,0 +1,305 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe sorted set for read-mostly workloads.
+ * Readers never lock: every read goes to an immutable {@link ArraySet} snapshot published through a volatile field.
+ * Writers queue their updates, and whichever writer holds the lock applies every queued update
+ * in a single merge with the snapshot, so concurrent writers share one copy of the array.
+ * A write returns only after the snapshot containing it is published.
+ * <p>
+ * Iterators and views (<tt>subSet</tt>, <tt>headSet</tt>, <tt>tailSet</tt>, <tt>descendingSet</tt>)
+ * are immutable snapshots of the moment they were taken, as in <tt>CopyOnWriteArraySet</tt>.
+ */
+public class ConcurrentArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    private final Comparator<? super E> comparator;
+    private final Comparator<? super E> order;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Write<E>> pending = new ConcurrentLinkedQueue<>();
+    private volatile ArraySet<E> snapshot;
+
+    private static class Write<E> {
+        final E element;
+        final boolean add;
+        boolean changed;
+        boolean done;
+
+        Write(E element, boolean add) {
+            this.element = element;
+            this.add = add;
+        }
+    }
+
+    public ConcurrentArraySet() {
+        this(Collections.emptyList(), null);
+    }
+
+    public ConcurrentArraySet(Comparator<? super E> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public ConcurrentArraySet(Collection<? extends E> collection) {
+        this(collection, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentArraySet(Collection<? extends E> collection, Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.order = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        this.snapshot = new ArraySet<>(collection, comparator);
+    }
+
+    /**
+     * Current contents as an immutable set.
+     */
+    public ArraySet<E> snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean add(E element) {
+        return write(element, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object object) {
+        return write((E) object, false);
+    }
+
+    private boolean write(E element, boolean add) {
+        if (element == null) {
+            throw new NullPointerException("element is null");
+        }
+        // Fail on incomparable elements here rather than in the merge of someone else's batch.
+        order.compare(element, element);
+        Write<E> write = new Write<>(element, add);
+        pending.add(write);
+        lock.lock();
+        try {
+            if (!write.done) {
+                combine();
+            }
+            return write.changed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies all queued writes in one pass over the snapshot. Writes to equal elements are applied in queue order.
+     */
+    private void combine() {
+        List<Write<E>> batch = new ArrayList<>();
+        for (Write<E> write; (write = pending.poll()) != null; ) {
+            batch.add(write);
+        }
+        batch.sort((a, b) -> order.compare(a.element, b.element));
+        ArraySet<E> current = snapshot;
+        int size = current.size();
+        List<E> result = new ArrayList<>(size + batch.size());
+        int i = 0;
+        for (int j = 0; j < batch.size(); ) {
+            E key = batch.get(j).element;
+            while (i < size && order.compare(current.at(i), key) < 0) {
+                result.add(current.at(i++));
+            }
+            E element = i < size && order.compare(current.at(i), key) == 0 ? current.at(i++) : null;
+            for (; j < batch.size() && order.compare(batch.get(j).element, key) == 0; j++) {
+                Write<E> write = batch.get(j);
+                write.changed = write.add == (element == null);
+                if (write.changed) {
+                    element = write.add ? write.element : null;
+                }
+            }
+            if (element != null) {
+                result.add(element);
+            }
+        }
+        while (i < size) {
+            result.add(current.at(i++));
+        }
+        snapshot = ArraySet.ofSorted(result, comparator);
+        for (Write<E> write : batch) {
+            write.done = true;
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        ArraySet<E> added = new ArraySet<>(collection, comparator);
+        lock.lock();
+        try {
+            ArraySet<E> current = snapshot;
+            snapshot = ArraySets.union(current, added);
+            return snapshot.size() != current.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeAll(Collection<?> collection) {
+        ArraySet<E> removed = new ArraySet<>((Collection<? extends E>) collection, comparator);
+        lock.lock();
+        try {
+            ArraySet<E> current = snapshot;
+            snapshot = ArraySets.difference(current, removed);
+            return snapshot.size() != current.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean retainAll(Collection<?> collection) {
+        ArraySet<E> retained = new ArraySet<>((Collection<? extends E>) collection, comparator);
+        lock.lock();
+        try {
+            ArraySet<E> current = snapshot;
+            snapshot = ArraySets.intersection(current, retained);
+            return snapshot.size() != current.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            snapshot = ArraySet.ofSorted(Collections.emptyList(), comparator);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E pollFirst() {
+        for (ArraySet<E> current = snapshot; !current.isEmpty(); current = snapshot) {
+            E first = current.first();
+            if (remove(first)) {
+                return first;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E pollLast() {
+        for (ArraySet<E> current = snapshot; !current.isEmpty(); current = snapshot) {
+            E last = current.last();
+            if (remove(last)) {
+                return last;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return snapshot.contains(object);
+    }
+
+    /**
+     * Batch membership test against the current snapshot, see {@link ArraySet#containsEach}.
+     */
+    public BitSet containsEach(List<? extends E> probes) {
+        return snapshot.containsEach(probes);
+    }
+
+    @Override
+    public E first() {
+        return snapshot.first();
+    }
+
+    @Override
+    public E last() {
+        return snapshot.last();
+    }
+
+    @Override
+    public E lower(E e) {
+        return snapshot.lower(e);
+    }
+
+    @Override
+    public E floor(E e) {
+        return snapshot.floor(e);
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return snapshot.ceiling(e);
+    }
+
+    @Override
+    public E higher(E e) {
+        return snapshot.higher(e);
+    }
+
+    @Override
+    public ArraySet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return snapshot.subSet(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    @Override
+    public ArraySet<E> headSet(E toElement, boolean inclusive) {
+        return snapshot.headSet(toElement, inclusive);
+    }
+
+    @Override
+    public ArraySet<E> tailSet(E fromElement, boolean inclusive) {
+        return snapshot.tailSet(fromElement, inclusive);
+    }
+
+    @Override
+    public ArraySet<E> subSet(E fromElement, E toElement) {
+        return snapshot.subSet(fromElement, toElement);
+    }
+
+    @Override
+    public ArraySet<E> headSet(E toElement) {
+        return snapshot.headSet(toElement);
+    }
+
+    @Override
+    public ArraySet<E> tailSet(E fromElement) {
+        return snapshot.tailSet(fromElement);
+    }
+
+    @Override
+    public ArraySet<E> descendingSet() {
+        return snapshot.descendingSet();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return snapshot.descendingIterator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot.iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return snapshot.spliterator();
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+}
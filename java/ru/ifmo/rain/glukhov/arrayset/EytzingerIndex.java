@@ -0,0 +1,56 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Copy of a sorted list in Eytzinger (breadth-first heap) order.
+ * The first levels of the implicit tree share cache lines, so a search touches far fewer of them
+ * than a binary search jumping across the whole sorted array.
+ */
+class EytzingerIndex<E> {
+    private final Object[] tree;
+    private final int[] rank;
+    private final int size;
+    private final Comparator<? super E> comparator;
+
+    @SuppressWarnings("unchecked")
+    EytzingerIndex(List<E> sorted, Comparator<? super E> comparator) {
+        this.comparator = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        size = sorted.size();
+        tree = new Object[size + 1];
+        rank = new int[size + 1];
+        fill(sorted, 0, 1);
+    }
+
+    private int fill(List<E> sorted, int next, int node) {
+        if (node <= size) {
+            next = fill(sorted, next, 2 * node);
+            tree[node] = sorted.get(next);
+            rank[node] = next++;
+            next = fill(sorted, next, 2 * node + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Index in the sorted list of the first element not less than <tt>key</tt>,
+     * or greater than <tt>key</tt> when <tt>strict</tt>; list size if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    int search(E key, boolean strict) {
+        int node = 1;
+        // Branch rather than select the child: elements are references, and a predicted branch lets
+        // the CPU start loading the next node while the current comparison is still waiting on memory.
+        while (node <= size) {
+            int cmp = comparator.compare((E) tree[node], key);
+            if (cmp < 0 || strict && cmp == 0) {
+                node = 2 * node + 1;
+            } else {
+                node = 2 * node;
+            }
+        }
+        node >>>= Integer.numberOfTrailingZeros(~node) + 1;
+        return node == 0 ? size : rank[node];
+    }
+}
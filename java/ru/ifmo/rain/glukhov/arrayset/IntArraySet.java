@@ -0,0 +1,151 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable sorted set of <tt>int</tt> values stored in a plain <tt>int[]</tt>.
+ * All views share the backing array and primitive overloads never box.
+ */
+public class IntArraySet extends PrimitiveArraySet<Integer, IntArraySet> {
+    private final int[] array;
+
+    public IntArraySet() {
+        this(new int[0], 0, 0, false);
+    }
+
+    public IntArraySet(int... values) {
+        this(sortedDistinct(values.clone()), false);
+    }
+
+    public IntArraySet(Collection<Integer> collection) {
+        this(sortedDistinct(unbox(collection)), false);
+    }
+
+    private IntArraySet(int[] sorted, boolean descending) {
+        this(sorted, 0, sorted.length, descending);
+    }
+
+    private IntArraySet(int[] array, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.array = array;
+    }
+
+    private static int[] unbox(Collection<Integer> collection) {
+        int[] values = new int[collection.size()];
+        int i = 0;
+        for (Integer value : collection) {
+            values[i++] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Sorts the array in place and returns its distinct values, in that same array if there are no duplicates.
+     */
+    private static int[] sortedDistinct(int[] sorted) {
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return sorted;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    @Override
+    long key(int index) {
+        return array[index];
+    }
+
+    @Override
+    Integer box(long key) {
+        return (int) key;
+    }
+
+    @Override
+    IntArraySet view(int from, int to, boolean descending) {
+        return new IntArraySet(array, from, to, descending);
+    }
+
+    public boolean contains(int key) {
+        return containsKey(key);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (object == null) {
+            throw new NullPointerException("object is null");
+        }
+        return object instanceof Integer && contains((int) (Integer) object);
+    }
+
+    public int firstInt() {
+        return (int) firstKey();
+    }
+
+    public int lastInt() {
+        return (int) lastKey();
+    }
+
+    public IntArraySet subSet(int fromElement, boolean fromInclusive, int toElement, boolean toInclusive) {
+        return subWindow(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public IntArraySet headSet(int toElement, boolean inclusive) {
+        return headWindow(toElement, inclusive);
+    }
+
+    public IntArraySet tailSet(int fromElement, boolean inclusive) {
+        return tailWindow(fromElement, inclusive);
+    }
+
+    public IntArraySet subSet(int fromElement, int toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public IntArraySet headSet(int toElement) {
+        return headSet(toElement, false);
+    }
+
+    public IntArraySet tailSet(int fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new Iterator();
+    }
+
+    private class Iterator extends Indices implements PrimitiveIterator.OfInt {
+        @Override
+        public int nextInt() {
+            return array[nextIndex()];
+        }
+    }
+
+    public void forEachInt(IntConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    public int[] toIntArray() {
+        int[] result = Arrays.copyOfRange(array, from, to);
+        if (descending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                int tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable sorted set of <tt>long</tt> values stored in a plain <tt>long[]</tt>.
+ * All views share the backing array and primitive overloads never box.
+ */
+public class LongArraySet extends PrimitiveArraySet<Long, LongArraySet> {
+    private final long[] array;
+
+    public LongArraySet() {
+        this(new long[0], 0, 0, false);
+    }
+
+    public LongArraySet(long... values) {
+        this(sortedDistinct(values.clone()), false);
+    }
+
+    public LongArraySet(Collection<Long> collection) {
+        this(sortedDistinct(unbox(collection)), false);
+    }
+
+    private LongArraySet(long[] sorted, boolean descending) {
+        this(sorted, 0, sorted.length, descending);
+    }
+
+    private LongArraySet(long[] array, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.array = array;
+    }
+
+    private static long[] unbox(Collection<Long> collection) {
+        long[] values = new long[collection.size()];
+        int i = 0;
+        for (Long value : collection) {
+            values[i++] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Sorts the array in place and returns its distinct values, in that same array if there are no duplicates.
+     */
+    private static long[] sortedDistinct(long[] sorted) {
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return sorted;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    @Override
+    long key(int index) {
+        return array[index];
+    }
+
+    @Override
+    Long box(long key) {
+        return key;
+    }
+
+    @Override
+    LongArraySet view(int from, int to, boolean descending) {
+        return new LongArraySet(array, from, to, descending);
+    }
+
+    public boolean contains(long key) {
+        return containsKey(key);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (object == null) {
+            throw new NullPointerException("object is null");
+        }
+        return object instanceof Long && contains((long) (Long) object);
+    }
+
+    public long firstLong() {
+        return firstKey();
+    }
+
+    public long lastLong() {
+        return lastKey();
+    }
+
+    public LongArraySet subSet(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        return subWindow(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public LongArraySet headSet(long toElement, boolean inclusive) {
+        return headWindow(toElement, inclusive);
+    }
+
+    public LongArraySet tailSet(long fromElement, boolean inclusive) {
+        return tailWindow(fromElement, inclusive);
+    }
+
+    public LongArraySet subSet(long fromElement, long toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public LongArraySet headSet(long toElement) {
+        return headSet(toElement, false);
+    }
+
+    public LongArraySet tailSet(long fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new Iterator();
+    }
+
+    private class Iterator extends Indices implements PrimitiveIterator.OfLong {
+        @Override
+        public long nextLong() {
+            return array[nextIndex()];
+        }
+    }
+
+    public void forEachLong(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    public long[] toLongArray() {
+        long[] result = Arrays.copyOfRange(array, from, to);
+        if (descending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                long tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,219 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable sorted set of <tt>long</tt> values queried in place over a memory-mapped file.
+ * Nothing is deserialized on {@link #open}, lookups binary search the mapping and the values stay off heap.
+ * <p>
+ * File layout, little-endian: <tt>int</tt> magic, <tt>int</tt> key width (4 or 8 bytes),
+ * <tt>long</tt> count, then <tt>count</tt> distinct keys in ascending order.
+ * Sets written from {@link IntArraySet} keep 4-byte keys and are read back widened to <tt>long</tt>.
+ */
+public class MappedLongSet extends PrimitiveArraySet<Long, MappedLongSet> {
+    static private final int MAGIC = 0x41534d31;
+    static private final int HEADER = 16;
+    static private final int BLOCK = 1 << 16;
+
+    private final LongBuffer longs;
+    private final IntBuffer ints;
+
+    private MappedLongSet(LongBuffer longs, IntBuffer ints, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.longs = longs;
+        this.ints = ints;
+    }
+
+    public static MappedLongSet open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER) {
+                throw new IOException("truncated set file " + file);
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("set file is larger than 2 GB " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int width = buffer.getInt(4);
+            long count = buffer.getLong(8);
+            if (buffer.getInt(0) != MAGIC || width != Integer.BYTES && width != Long.BYTES) {
+                throw new IOException("not a set file " + file);
+            }
+            if (count < 0 || count > (fileSize - HEADER) / width) {
+                throw new IOException("truncated set file " + file);
+            }
+            buffer.position(HEADER);
+            ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return width == Long.BYTES
+                    ? new MappedLongSet(data.asLongBuffer(), null, 0, (int) count, false)
+                    : new MappedLongSet(null, data.asIntBuffer(), 0, (int) count, false);
+        }
+    }
+
+    public static void write(LongArraySet set, Path file) throws IOException {
+        try (Writer writer = new Writer(file, Long.BYTES, set.size())) {
+            (set.comparator() == null ? set : set.descendingSet()).forEachLong(writer::putLong);
+        }
+    }
+
+    public static void write(IntArraySet set, Path file) throws IOException {
+        try (Writer writer = new Writer(file, Integer.BYTES, set.size())) {
+            (set.comparator() == null ? set : set.descendingSet()).forEachInt(writer::putInt);
+        }
+    }
+
+    private static class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+        private IOException error;
+
+        Writer(Path file, int width, int count) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC).putInt(width).putLong(count);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (error == null && buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                if (error != null) {
+                    throw error;
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    long key(int index) {
+        return longs != null ? longs.get(index) : ints.get(index);
+    }
+
+    @Override
+    Long box(long key) {
+        return key;
+    }
+
+    @Override
+    MappedLongSet view(int from, int to, boolean descending) {
+        return new MappedLongSet(longs, ints, from, to, descending);
+    }
+
+    public boolean contains(long key) {
+        return containsKey(key);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (object == null) {
+            throw new NullPointerException("object is null");
+        }
+        return object instanceof Long && contains((long) (Long) object);
+    }
+
+    public long firstLong() {
+        return firstKey();
+    }
+
+    public long lastLong() {
+        return lastKey();
+    }
+
+    public MappedLongSet subSet(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        return subWindow(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public MappedLongSet headSet(long toElement, boolean inclusive) {
+        return headWindow(toElement, inclusive);
+    }
+
+    public MappedLongSet tailSet(long fromElement, boolean inclusive) {
+        return tailWindow(fromElement, inclusive);
+    }
+
+    public MappedLongSet subSet(long fromElement, long toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public MappedLongSet headSet(long toElement) {
+        return headSet(toElement, false);
+    }
+
+    public MappedLongSet tailSet(long fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new Iterator();
+    }
+
+    private class Iterator extends Indices implements PrimitiveIterator.OfLong {
+        @Override
+        public long nextLong() {
+            return key(nextIndex());
+        }
+    }
+
+    public void forEachLong(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    /**
+     * Copies the view onto the heap.
+     */
+    public LongArraySet toLongArraySet() {
+        long[] values = new long[size()];
+        for (int i = from; i < to; i++) {
+            values[i - from] = key(i);
+        }
+        LongArraySet set = new LongArraySet(values);
+        return descending ? set.descendingSet() : set;
+    }
+}
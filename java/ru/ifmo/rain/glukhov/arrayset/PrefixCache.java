@@ -0,0 +1,57 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.List;
+
+/**
+ * Four UTF-16 units of every element of a sorted <tt>String</tt> list packed into a <tt>long</tt>,
+ * so that unsigned comparison of packed values agrees with <tt>String.compareTo</tt> unless they are equal.
+ * Units are taken right after the prefix shared by the whole list, where the elements actually differ.
+ */
+class PrefixCache {
+    private final long[] packed;
+    private final String common;
+
+    PrefixCache(List<?> sorted) {
+        String first = sorted.isEmpty() ? "" : (String) sorted.get(0);
+        String last = sorted.isEmpty() ? "" : (String) sorted.get(sorted.size() - 1);
+        int length = 0;
+        while (length < first.length() && length < last.length() && first.charAt(length) == last.charAt(length)) {
+            length++;
+        }
+        common = first.substring(0, length);
+        packed = new long[sorted.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = pack((String) sorted.get(i));
+        }
+    }
+
+    private long pack(String string) {
+        long result = 0;
+        for (int i = common.length(); i < common.length() + 4; i++) {
+            result = result << 16 | (i < string.length() ? string.charAt(i) : 0);
+        }
+        return result;
+    }
+
+    /**
+     * Packed form of a key. Keys outside the common prefix get the smallest or the largest value,
+     * which is still consistent: every element is ordered the same way against them.
+     */
+    long key(String key) {
+        int i = 0;
+        while (i < common.length() && i < key.length() && key.charAt(i) == common.charAt(i)) {
+            i++;
+        }
+        if (i == common.length()) {
+            return pack(key);
+        }
+        return i == key.length() || key.charAt(i) < common.charAt(i) ? 0 : -1;
+    }
+
+    /**
+     * Sign of <tt>element(index).compareTo(key)</tt>, or zero if only a full comparison can tell.
+     */
+    int compare(int index, long key) {
+        return Long.compareUnsigned(packed[index], key);
+    }
+}
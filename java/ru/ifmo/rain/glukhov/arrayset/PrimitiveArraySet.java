@@ -0,0 +1,231 @@
+package ru.ifmo.rain.glukhov.arrayset;
+
+import java.util.*;
+
+/**
+ * Window <tt>[from, to)</tt> of ascending distinct primitive keys, viewed in either direction.
+ * Navigation and views are implemented over {@link #key}, subclasses only provide the storage.
+ */
+abstract class PrimitiveArraySet<E extends Number, S extends PrimitiveArraySet<E, S>>
+        extends AbstractSet<E> implements NavigableSet<E> {
+    final int from;
+    final int to;
+    final boolean descending;
+
+    PrimitiveArraySet(int from, int to, boolean descending) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    /**
+     * Key at an index of the storage, widened to <tt>long</tt>.
+     */
+    abstract long key(int index);
+
+    abstract E box(long key);
+
+    /**
+     * Same storage over another window.
+     */
+    abstract S view(int from, int to, boolean descending);
+
+    int lowerBound(long key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    int upperBound(long key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compare(long a, long b) {
+        return descending ? Long.compare(b, a) : Long.compare(a, b);
+    }
+
+    boolean containsKey(long key) {
+        int index = lowerBound(key);
+        return index < to && key(index) == key;
+    }
+
+    long firstKey() {
+        if (from == to) {
+            throw new NoSuchElementException("first");
+        }
+        return descending ? key(to - 1) : key(from);
+    }
+
+    long lastKey() {
+        if (from == to) {
+            throw new NoSuchElementException("last");
+        }
+        return descending ? key(from) : key(to - 1);
+    }
+
+    @Override
+    public E first() {
+        return box(firstKey());
+    }
+
+    @Override
+    public E last() {
+        return box(lastKey());
+    }
+
+    private E element(int index) {
+        return from <= index && index < to ? box(key(index)) : null;
+    }
+
+    @Override
+    public E lower(E key) {
+        long k = key.longValue();
+        return descending ? element(upperBound(k)) : element(lowerBound(k) - 1);
+    }
+
+    @Override
+    public E floor(E key) {
+        long k = key.longValue();
+        return descending ? element(lowerBound(k)) : element(upperBound(k) - 1);
+    }
+
+    @Override
+    public E ceiling(E key) {
+        long k = key.longValue();
+        return descending ? element(upperBound(k) - 1) : element(lowerBound(k));
+    }
+
+    @Override
+    public E higher(E key) {
+        long k = key.longValue();
+        return descending ? element(lowerBound(k) - 1) : element(upperBound(k));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("pollFirst");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("pollLast");
+    }
+
+    private S window(boolean hasLow, long low, boolean lowInclusive,
+                     boolean hasHigh, long high, boolean highInclusive) {
+        int start = !hasLow ? from : lowInclusive ? lowerBound(low) : upperBound(low);
+        int end = !hasHigh ? to : highInclusive ? upperBound(high) : lowerBound(high);
+        return view(start, Math.max(start, end), descending);
+    }
+
+    S subWindow(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("in subSet illegal arguments");
+        }
+        return descending
+                ? window(true, toElement, toInclusive, true, fromElement, fromInclusive)
+                : window(true, fromElement, fromInclusive, true, toElement, toInclusive);
+    }
+
+    S headWindow(long toElement, boolean inclusive) {
+        return descending
+                ? window(true, toElement, inclusive, false, 0, false)
+                : window(false, 0, false, true, toElement, inclusive);
+    }
+
+    S tailWindow(long fromElement, boolean inclusive) {
+        return descending
+                ? window(false, 0, false, true, fromElement, inclusive)
+                : window(true, fromElement, inclusive, false, 0, false);
+    }
+
+    @Override
+    public S subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return subWindow(fromElement.longValue(), fromInclusive, toElement.longValue(), toInclusive);
+    }
+
+    @Override
+    public S headSet(E toElement, boolean inclusive) {
+        return headWindow(toElement.longValue(), inclusive);
+    }
+
+    @Override
+    public S tailSet(E fromElement, boolean inclusive) {
+        return tailWindow(fromElement.longValue(), inclusive);
+    }
+
+    @Override
+    public S subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public S headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public S tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public S descendingSet() {
+        return view(from, to, !descending);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    /**
+     * Storage indices of the window in iteration order, for the primitive iterators of subclasses.
+     */
+    abstract class Indices {
+        private int next = descending ? to - 1 : from;
+
+        public boolean hasNext() {
+            return descending ? next >= from : next < to;
+        }
+
+        int nextIndex() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return descending ? next-- : next++;
+        }
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash += box(key(i)).hashCode();
+        }
+        return hash;
+    }
+}
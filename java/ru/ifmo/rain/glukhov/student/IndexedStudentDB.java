@@ -0,0 +1,93 @@
+package ru.ifmo.rain.glukhov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Student queries over a fixed roster, indexed once on construction.
+ * Lookups by group, first name and last name are hash lookups returning lists already sorted by name,
+ * the sorted orders are precomputed. Returned collections are unmodifiable views of the indexes.
+ */
+public class IndexedStudentDB {
+    private final List<Student> byId;
+    private final List<Student> byName;
+    private final Map<String, List<Student>> byGroup;
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final SortedSet<String> firstNames;
+    private final SortedSet<String> groups;
+
+    public IndexedStudentDB(Collection<Student> students) {
+        List<Student> sorted = new ArrayList<>(students);
+        sorted.sort(Student::compareTo);
+        byId = Collections.unmodifiableList(new ArrayList<>(sorted));
+        sorted.sort(StudentDB.NAME_ORDER);
+        byName = Collections.unmodifiableList(sorted);
+        byGroup = index(Student::getGroup);
+        byFirstName = index(Student::getFirstName);
+        byLastName = index(Student::getLastName);
+        firstNames = Collections.unmodifiableSortedSet(new TreeSet<>(byFirstName.keySet()));
+        groups = Collections.unmodifiableSortedSet(new TreeSet<>(byGroup.keySet()));
+    }
+
+    /**
+     * Groups students by <tt>key</tt>. Every list keeps the name order of {@link #byName}.
+     */
+    private Map<String, List<Student>> index(Function<Student, String> key) {
+        Map<String, List<Student>> index = byName.stream().collect(Collectors.groupingBy(key));
+        index.replaceAll((name, list) -> Collections.unmodifiableList(list));
+        return index;
+    }
+
+    private static List<Student> lookup(Map<String, List<Student>> index, String key) {
+        return index.getOrDefault(key, Collections.emptyList());
+    }
+
+    public List<Student> findStudentsByGroup(String group) {
+        return lookup(byGroup, group);
+    }
+
+    public List<Student> findStudentsByFirstName(String name) {
+        return lookup(byFirstName, name);
+    }
+
+    public List<Student> findStudentsByLastName(String name) {
+        return lookup(byLastName, name);
+    }
+
+    public Map<String, String> findStudentNamesByGroup(String group) {
+        return lookup(byGroup, group).stream()
+                .collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
+    }
+
+    public List<Student> sortStudentsById() {
+        return byId;
+    }
+
+    public List<Student> sortStudentsByName() {
+        return byName;
+    }
+
+    public Set<String> getDistinctFirstNames() {
+        return firstNames;
+    }
+
+    /**
+     * Names of all groups in ascending order.
+     */
+    public SortedSet<String> getGroupNames() {
+        return groups;
+    }
+
+    public String getMinStudentFirstName() {
+        return byId.isEmpty() ? "" : byId.get(0).getFirstName();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
@@ -1,16 +1,49 @@
 package ru.ifmo.rain.glukhov.student;
 
+import info.kgeorgiy.java.advanced.student.Group;
 import info.kgeorgiy.java.advanced.student.Student;
-import info.kgeorgiy.java.advanced.student.StudentQuery;
+import info.kgeorgiy.java.advanced.student.StudentGroupQuery;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class StudentDB implements StudentQuery {
+/**
+ * Student queries over plain streams. Parallel mode is opt-in: with {@link #StudentDB(int)}, collections of at least
+ * <tt>parallelThreshold</tt> students are processed by parallel streams in <tt>sortStudentsByName</tt>,
+ * <tt>getDistinctFirstNames</tt> and <tt>findStudentNamesByGroup</tt>, smaller ones stay sequential.
+ * Pick the threshold from the crossover reported by {@link StudentDBBenchmark} on the target host.
+ */
+public class StudentDB implements StudentGroupQuery {
+    static final Comparator<Student> NAME_ORDER = Comparator.comparing(Student::getLastName)
+            .thenComparing(Student::getFirstName).thenComparing(Student::getId);
+
+    private final int parallelThreshold;
+
+    public StudentDB() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param parallelThreshold smallest collection processed in parallel, {@link Integer#MAX_VALUE} to stay sequential
+     */
+    public StudentDB(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    private boolean isParallel(Collection<Student> students) {
+        return students.size() >= parallelThreshold;
+    }
+
+    private Stream<Student> stream(Collection<Student> students) {
+        return isParallel(students) ? students.parallelStream() : students.stream();
+    }
+
     @Override
     public List<String> getFirstNames(List<Student> students) {
         return getFieldByFunction(students.stream(), Student::getFirstName).collect(Collectors.toList());
@@ -55,7 +88,7 @@ public class StudentDB implements StudentQuery {
     }
 
     private Comparator<Student> getComparator() {
-        return Comparator.comparing(Student::getLastName).thenComparing(Student::getFirstName).thenComparing(Student::getId);
+        return NAME_ORDER;
     }
 
     private Stream<Student> sortedFindStudentsByField(Stream<Student> stream, Predicate<Student> predcate) {
@@ -69,7 +102,7 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
-        return sortStudentByComparator(students.stream(), getComparator()).collect(Collectors.toList());
+        return sortStudentByComparator(stream(students), getComparator()).collect(Collectors.toList());
     }
 
     private Stream<Student> sortStudentByComparator(Stream<Student> stream, Comparator<Student> comparator) {
@@ -78,12 +111,22 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
-        return students.stream().filter(student -> student.getGroup().equals(group))
-                .collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
+        Stream<Student> inGroup = stream(students).filter(student -> student.getGroup().equals(group));
+        if (isParallel(students)) {
+            return inGroup.collect(Collectors.toConcurrentMap(Student::getLastName, Student::getFirstName,
+                    BinaryOperator.minBy(String::compareTo)));
+        }
+        return inGroup.collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
     }
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (isParallel(students)) {
+            return getFieldByFunction(students.parallelStream(), Student::getFirstName)
+                    .collect(Collector.of(ConcurrentSkipListSet::new, Set::add, (left, right) -> left,
+                            Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+                            Collector.Characteristics.IDENTITY_FINISH));
+        }
         return getFieldByFunction(students.stream(), Student::getFirstName).collect(Collectors.toCollection(TreeSet::new));
     }
 
@@ -92,4 +135,50 @@ public class StudentDB implements StudentQuery {
         return students.stream().min(Student::compareTo).map(Student::getFirstName).orElse("");
     }
 
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        return getGroupsSortedBy(students, getComparator());
+    }
+
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return getGroupsSortedBy(students, Student::compareTo);
+    }
+
+    private List<Group> getGroupsSortedBy(Collection<Student> students, Comparator<Student> comparator) {
+        return students.stream()
+                .collect(Collectors.groupingBy(Student::getGroup, TreeMap::new, Collectors.toCollection(ArrayList::new)))
+                .entrySet().stream()
+                .map(entry -> {
+                    entry.getValue().sort(comparator);
+                    return new Group(entry.getKey(), entry.getValue());
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String getLargestGroup(Collection<Student> students) {
+        return getLargestGroupBy(students.stream()
+                .collect(Collectors.groupingBy(Student::getGroup, Collectors.counting())));
+    }
+
+    @Override
+    public String getLargestGroupFirstName(Collection<Student> students) {
+        return getLargestGroupBy(students.stream()
+                .collect(Collectors.groupingBy(Student::getGroup,
+                        Collectors.collectingAndThen(Collectors.mapping(Student::getFirstName, Collectors.toSet()),
+                                names -> (long) names.size()))));
+    }
+
+    /**
+     * Group with the largest size, the smallest name among equal ones.
+     */
+    private String getLargestGroupBy(Map<String, Long> sizes) {
+        return sizes.entrySet().stream()
+                .max(Map.Entry.<String, Long>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse("");
+    }
+
 }
@@ -0,0 +1,79 @@
+package ru.ifmo.rain.glukhov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Sequential against parallel StudentDB queries by roster size, to pick the parallel threshold for a host.
+ * Usage: <tt>StudentDBBenchmark [maxSize]</tt>, sizes are powers of four from 1K up to <tt>maxSize</tt> (4M by default).
+ * The crossover printed for every query is the smallest size from which parallel execution stays faster.
+ */
+public class StudentDBBenchmark {
+    static private final int WARMUP = 3;
+    static private final int MEASUREMENTS = 5;
+
+    private static final Map<String, BiConsumer<StudentDB, List<Student>>> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("sortStudentsByName", StudentDB::sortStudentsByName);
+        QUERIES.put("getDistinctFirstNames", StudentDB::getDistinctFirstNames);
+        QUERIES.put("findStudentNamesByGroup", (db, students) -> db.findStudentNamesByGroup(students, "M30"));
+    }
+
+    public static void main(String[] args) {
+        int maxSize = 1 << 22;
+        if (args != null && args.length > 0 && args[0] != null) {
+            try {
+                maxSize = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Error: incorrect size " + args[0]);
+                return;
+            }
+        }
+        StudentDB sequential = new StudentDB(Integer.MAX_VALUE);
+        StudentDB parallel = new StudentDB(0);
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        for (Map.Entry<String, BiConsumer<StudentDB, List<Student>>> query : QUERIES.entrySet()) {
+            int crossover = -1;
+            for (int size = 1 << 10; size <= maxSize; size <<= 2) {
+                List<Student> students = generate(size);
+                double sequentialTime = measure(query.getValue(), sequential, students);
+                double parallelTime = measure(query.getValue(), parallel, students);
+                if (parallelTime >= sequentialTime) {
+                    crossover = -1;
+                } else if (crossover < 0) {
+                    crossover = size;
+                }
+                System.out.println(String.format("%-24s size=%-9d sequential %10.3f ms   parallel %10.3f ms",
+                        query.getKey(), size, sequentialTime, parallelTime));
+            }
+            System.out.println(query.getKey() + " crossover: " + (crossover < 0 ? "none" : Integer.toString(crossover)));
+        }
+    }
+
+    private static List<Student> generate(int size) {
+        Random random = new Random(size);
+        int names = (int) Math.sqrt(size) + 1;
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(random.nextInt(size), "First" + random.nextInt(names),
+                    "Last" + random.nextInt(names), "M3" + random.nextInt(10)));
+        }
+        return students;
+    }
+
+    private static double measure(BiConsumer<StudentDB, List<Student>> query, StudentDB db, List<Student> students) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.accept(db, students);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            long start = System.nanoTime();
+            query.accept(db, students);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
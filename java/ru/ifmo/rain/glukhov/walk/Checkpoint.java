@@ -0,0 +1,122 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position of a Walk run: input offset after the last fully written line and output length at that moment,
+ * along with the input and output it was taken for, so that it is never applied to another run.
+ */
+class Checkpoint {
+    static private final int MAGIC = 0x57434b32;
+    static private final long PERIOD = TimeUnit.SECONDS.toNanos(10);
+
+    private final Path file;
+    private final String input;
+    private final long inputSize;
+    private final long inputModified;
+    private final String output;
+    private final long inputOffset;
+    private final long outputPosition;
+    private long lastSave = System.nanoTime();
+
+    private Checkpoint(Path file, String input, long inputSize, long inputModified, String output,
+                       long inputOffset, long outputPosition) {
+        this.file = file;
+        this.input = input;
+        this.inputSize = inputSize;
+        this.inputModified = inputModified;
+        this.output = output;
+        this.inputOffset = inputOffset;
+        this.outputPosition = outputPosition;
+    }
+
+    /**
+     * Reads checkpoint of previous run, if it exists. An unreadable checkpoint is ignored, but one taken for
+     * another input or output, or which does not fit them any more, is refused with an exception.
+     */
+    static Checkpoint open(Path file, String inputName, String outputName) throws IOException {
+        Path inputFile = Paths.get(inputName);
+        Path outputFile = Paths.get(outputName);
+        String input = inputFile.toAbsolutePath().normalize().toString();
+        String output = outputFile.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(inputFile, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IOException("cannot read input " + inputName);
+        }
+        long inputSize = attrs.size();
+        long inputModified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        if (!Files.exists(file)) {
+            return new Checkpoint(file, input, inputSize, inputModified, output, 0, 0);
+        }
+        String savedInput;
+        long savedSize;
+        long savedModified;
+        String savedOutput;
+        long inputOffset;
+        long outputPosition;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("bad magic");
+            }
+            savedInput = HashCache.readPath(in);
+            savedSize = in.readLong();
+            savedModified = in.readLong();
+            savedOutput = HashCache.readPath(in);
+            inputOffset = in.readLong();
+            outputPosition = in.readLong();
+        } catch (IOException e) {
+            System.err.println("Warning: ignoring stale checkpoint " + file);
+            return new Checkpoint(file, input, inputSize, inputModified, output, 0, 0);
+        }
+        if (!savedInput.equals(input) || savedSize != inputSize || savedModified != inputModified) {
+            throw new IOException("checkpoint " + file + " was taken for another input than " + inputName);
+        }
+        if (!savedOutput.equals(output)) {
+            throw new IOException("checkpoint " + file + " was taken for another output than " + outputName);
+        }
+        if (inputOffset < 0 || inputOffset > inputSize) {
+            throw new IOException("checkpoint " + file + " points past the end of " + inputName);
+        }
+        if (outputPosition < 0 || !Files.exists(outputFile) || Files.size(outputFile) < outputPosition) {
+            throw new IOException("checkpoint " + file + " points past the end of " + outputName);
+        }
+        System.err.println("Resuming from input offset " + inputOffset);
+        return new Checkpoint(file, input, inputSize, inputModified, output, inputOffset, outputPosition);
+    }
+
+    long inputOffset() {
+        return inputOffset;
+    }
+
+    long outputPosition() {
+        return outputPosition;
+    }
+
+    boolean due() {
+        return System.nanoTime() - lastSave >= PERIOD;
+    }
+
+    void save(long inputOffset, long outputPosition) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            HashCache.writePath(out, input);
+            out.writeLong(inputSize);
+            out.writeLong(inputModified);
+            HashCache.writePath(out, output);
+            out.writeLong(inputOffset);
+            out.writeLong(outputPosition);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastSave = System.nanoTime();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
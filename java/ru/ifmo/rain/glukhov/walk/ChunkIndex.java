@@ -0,0 +1,65 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects chunk hashes of all files, writes them to the chunk report and counts duplicates.
+ */
+class ChunkIndex implements Closeable {
+    private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong duplicateChunks = new AtomicLong();
+    private final AtomicLong duplicateBytes = new AtomicLong();
+    private final Writer writer;
+    private IOException error;
+
+    ChunkIndex(Path file) throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    void add(String path, long[] offsets, long[] lengths, long[] hashes, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            chunks.incrementAndGet();
+            bytes.addAndGet(lengths[i]);
+            if (!seen.add(hashes[i])) {
+                duplicateChunks.incrementAndGet();
+                duplicateBytes.addAndGet(lengths[i]);
+            }
+            lines.append(String.format("%016x %d %d ", hashes[i], offsets[i], lengths[i])).append(path).append('\n');
+        }
+        synchronized (writer) {
+            if (error == null) {
+                try {
+                    writer.write(lines.toString());
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    String summary() {
+        long total = bytes.get();
+        return String.format("Chunks: %d total, %d unique, %d of %d bytes duplicated (%.1f%%)",
+                chunks.get(), chunks.get() - duplicateChunks.get(), duplicateBytes.get(), total,
+                total == 0 ? 0.0 : 100.0 * duplicateBytes.get() / total);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Splits the stream into content-defined chunks with a gear rolling hash and hashes every chunk with 64-bit FNV.
+ * Contributes no bytes to the file digest, chunks of the last file are handed to {@link ChunkIndex}.
+ */
+class ChunkingHasher implements Hasher {
+    static private final int MIN_CHUNK = 1 << 11;
+    static private final int MAX_CHUNK = 1 << 16;
+    static private final long BOUNDARY_MASK = -1L << (64 - 13);
+    static private final long FNV_PRIME = 0x100000001b3L;
+    static private final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static private final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x5eedL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final ChunkIndex index;
+    private long gear;
+    private long chunkHash;
+    private long chunkStart;
+    private long position;
+    private long[] offsets = new long[16];
+    private long[] lengths = new long[16];
+    private long[] hashes = new long[16];
+    private int count;
+
+    ChunkingHasher(ChunkIndex index) {
+        this.index = index;
+        reset();
+    }
+
+    @Override
+    public String name() {
+        return "chunks";
+    }
+
+    @Override
+    public int length() {
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        gear = 0;
+        chunkHash = FNV_OFFSET;
+        chunkStart = 0;
+        position = 0;
+        count = 0;
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        long g = gear;
+        long h = chunkHash;
+        long pos = position;
+        while (block.hasRemaining()) {
+            int b = block.get() & 255;
+            g = (g << 1) + GEAR[b];
+            h = (h * FNV_PRIME) ^ b;
+            pos++;
+            long length = pos - chunkStart;
+            if (length >= MAX_CHUNK || length >= MIN_CHUNK && (g & BOUNDARY_MASK) == 0) {
+                cut(length, h);
+                chunkStart = pos;
+                g = 0;
+                h = FNV_OFFSET;
+            }
+        }
+        gear = g;
+        chunkHash = h;
+        position = pos;
+    }
+
+    private void cut(long length, long hash) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * count);
+            lengths = Arrays.copyOf(lengths, 2 * count);
+            hashes = Arrays.copyOf(hashes, 2 * count);
+        }
+        offsets[count] = chunkStart;
+        lengths[count] = length;
+        hashes[count] = hash;
+        count++;
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        if (position > chunkStart) {
+            cut(position - chunkStart, chunkHash);
+            chunkStart = position;
+        }
+    }
+
+    void report(String path) {
+        index.add(path, offsets, lengths, hashes, count);
+    }
+}
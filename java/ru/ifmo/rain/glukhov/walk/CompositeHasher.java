@@ -0,0 +1,60 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+class CompositeHasher implements Hasher {
+    private final Hasher[] hashers;
+    private final String name;
+    private final int length;
+
+    CompositeHasher(List<Hasher> hashers) {
+        this.hashers = hashers.toArray(new Hasher[0]);
+        StringBuilder names = new StringBuilder();
+        int total = 0;
+        for (Hasher hasher : this.hashers) {
+            names.append(names.length() == 0 ? "" : ",").append(hasher.name());
+            total += hasher.length();
+        }
+        this.name = names.toString();
+        this.length = total;
+    }
+
+    Hasher[] parts() {
+        return hashers;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void reset() {
+        for (Hasher hasher : hashers) {
+            hasher.reset();
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        int start = block.position();
+        for (Hasher hasher : hashers) {
+            block.position(start);
+            hasher.update(block);
+        }
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        for (Hasher hasher : hashers) {
+            hasher.digest(out, offset);
+            offset += hasher.length();
+        }
+    }
+}
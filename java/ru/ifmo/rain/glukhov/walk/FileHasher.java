@@ -0,0 +1,85 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static java.lang.Math.min;
+
+class FileHasher {
+    static private final int BUFFER_SIZE = 1 << 16;
+    static private final long MAP_THRESHOLD = 1 << 20;
+    static private final long MAP_WINDOW = 1 << 26;
+
+    private final Hasher hasher;
+    private final ChunkingHasher chunker;
+    private final WalkStatistics stats;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    FileHasher(Hasher hasher, WalkStatistics stats) {
+        this.hasher = hasher;
+        this.chunker = null;
+        this.stats = stats;
+    }
+
+    /**
+     * Hasher which also splits every file into chunks in the same pass.
+     */
+    FileHasher(Hasher hasher, ChunkingHasher chunker, WalkStatistics stats) {
+        this.hasher = new CompositeHasher(Arrays.asList(hasher, chunker));
+        this.chunker = chunker;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns digest of the file, or zero bytes if it cannot be read.
+     */
+    byte[] hash(String path) {
+        byte[] digest = new byte[hasher.length()];
+        hasher.reset();
+        long start = System.nanoTime();
+        long read;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                read = hashMapped(channel, size);
+            } else {
+                read = hashRead(channel);
+            }
+        } catch (IOException | InvalidPathException e) {
+            return digest;
+        }
+        stats.read(path, read, System.nanoTime() - start);
+        hasher.digest(digest, 0);
+        if (chunker != null) {
+            chunker.report(path);
+        }
+        return digest;
+    }
+
+    private long hashMapped(FileChannel channel, long size) throws IOException {
+        for (long position = 0; position < size; position += MAP_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, min(MAP_WINDOW, size - position));
+            hasher.update(window);
+        }
+        return size;
+    }
+
+    private long hashRead(FileChannel channel) throws IOException {
+        long total = 0;
+        int read;
+        buffer.clear();
+        while ((read = channel.read(buffer)) >= 0) {
+            total += read;
+            buffer.flip();
+            hasher.update(buffer);
+            buffer.clear();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hashes every physical file once, whatever hard links, symbolic links or <tt>..</tt> aliases lead to it.
+ * Files are identified by {@link BasicFileAttributes#fileKey()}, or by real path where file keys are unavailable.
+ */
+class FileKeyDeduplicator {
+    private final ConcurrentMap<Object, CompletableFuture<byte[]>> hashes = new ConcurrentHashMap<>();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Digest of the file, computed by <tt>hasher</tt> unless another path to the same file has been hashed,
+     * in which case that result is shared, waiting for it if another thread is still computing it.
+     */
+    byte[] hash(String path, Function<String, byte[]> hasher) {
+        Object key;
+        try {
+            Path file = Paths.get(path);
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                return hasher.apply(path);
+            }
+            key = attrs.fileKey() != null ? attrs.fileKey() : file.toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            return hasher.apply(path);
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = hashes.putIfAbsent(key, result);
+        if (existing != null) {
+            reused.incrementAndGet();
+            return existing.join();
+        }
+        try {
+            byte[] digest = hasher.apply(path);
+            result.complete(digest);
+            return digest;
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    String summary() {
+        return "Duplicates: " + reused.get() + " files reused, " + hashes.size() + " distinct files";
+    }
+}
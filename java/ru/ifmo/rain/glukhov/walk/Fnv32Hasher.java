@@ -0,0 +1,41 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+
+class Fnv32Hasher implements Hasher {
+    static private final int PRIME = 0x01000193;
+    static private final int OFFSET = 0x811c9dc5;
+
+    private int hval = OFFSET;
+
+    @Override
+    public String name() {
+        return "fnv32";
+    }
+
+    @Override
+    public int length() {
+        return 4;
+    }
+
+    @Override
+    public void reset() {
+        hval = OFFSET;
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        int h = hval;
+        while (block.hasRemaining()) {
+            h = (h * PRIME) ^ (block.get() & 255);
+        }
+        hval = h;
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        for (int i = 0; i < 4; i++) {
+            out[offset + i] = (byte) (hval >>> (24 - 8 * i));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+
+class Fnv64Hasher implements Hasher {
+    static private final long PRIME = 0x100000001b3L;
+    static private final long OFFSET = 0xcbf29ce484222325L;
+
+    private long hval = OFFSET;
+
+    @Override
+    public String name() {
+        return "fnv64";
+    }
+
+    @Override
+    public int length() {
+        return 8;
+    }
+
+    @Override
+    public void reset() {
+        hval = OFFSET;
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        long h = hval;
+        while (block.hasRemaining()) {
+            h = (h * PRIME) ^ (block.get() & 255);
+        }
+        hval = h;
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        for (int i = 0; i < 8; i++) {
+            out[offset + i] = (byte) (hval >>> (56 - 8 * i));
+        }
+    }
+}
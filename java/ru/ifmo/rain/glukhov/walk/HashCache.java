@@ -0,0 +1,157 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+class HashCache {
+    static private final int MAGIC = 0x57434834;
+
+    private final String algorithms;
+    private final Map<String, Entry> loaded;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private HashCache(String algorithms, Map<String, Entry> loaded) {
+        this.algorithms = algorithms;
+        this.loaded = loaded;
+    }
+
+    static HashCache load(Path file, String algorithms) {
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("bad magic");
+                }
+                if (!in.readUTF().equals(algorithms)) {
+                    System.err.println("Warning: cache " + file + " was built for other algorithms, ignoring it");
+                    return new HashCache(algorithms, entries);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = readPath(in);
+                    long size = in.readLong();
+                    long modified = in.readLong();
+                    int length = in.readInt();
+                    if (length < 0) {
+                        throw new IOException("bad digest length");
+                    }
+                    byte[] digest = new byte[length];
+                    in.readFully(digest);
+                    entries.put(path, new Entry(size, modified, digest));
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: ignoring unreadable cache " + file);
+                entries.clear();
+            }
+        }
+        return new HashCache(algorithms, entries);
+    }
+
+    /**
+     * Reads a path written by {@link #writePath}: its length and UTF-8 bytes, with no limit on the length.
+     */
+    static String readPath(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("bad path length");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writePath(DataOutputStream out, String path) throws IOException {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the cache. With <tt>prune</tt>, only files looked up during this run are kept, so entries of deleted
+     * or moved files do not pile up; without it, entries loaded but not looked up are kept too,
+     * which suits runs that did not see the whole input, such as failed or resumed ones.
+     */
+    void save(Path file, boolean prune) throws IOException {
+        if (!prune) {
+            loaded.forEach(entries::putIfAbsent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(algorithms);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                writePath(out, e.getKey());
+                out.writeLong(e.getValue().size);
+                out.writeLong(e.getValue().modified);
+                out.writeInt(e.getValue().digest.length);
+                out.write(e.getValue().digest);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    byte[] hash(String path, Function<String, byte[]> hasher) {
+        String key;
+        BasicFileAttributes attrs;
+        try {
+            Path file = Paths.get(path);
+            key = file.toAbsolutePath().toString();
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException | InvalidPathException e) {
+            return hasher.apply(path);
+        }
+        if (!attrs.isRegularFile()) {
+            return hasher.apply(path);
+        }
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        Entry cached = loaded.get(key);
+        if (cached != null && cached.size == size && cached.modified == modified) {
+            entries.put(key, cached);
+            hits.incrementAndGet();
+            return cached.digest;
+        }
+        misses.incrementAndGet();
+        byte[] digest = hasher.apply(path);
+        if (!isZero(digest)) {
+            entries.put(key, new Entry(size, modified, digest));
+        }
+        return digest;
+    }
+
+    private static boolean isZero(byte[] digest) {
+        for (byte b : digest) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String summary() {
+        return "Cache: " + hits.get() + " hits, " + misses.get() + " misses";
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] digest;
+
+        private Entry(long size, long modified, byte[] digest) {
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+        }
+    }
+}
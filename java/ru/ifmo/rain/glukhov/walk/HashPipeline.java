@@ -0,0 +1,152 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+class HashPipeline implements Closeable {
+    private static final int WINDOW_PER_THREAD = 16;
+
+    private final HashWriter writer;
+    private final WalkStatistics stats;
+    private final Checkpoint checkpoint;
+    private final Function<String, byte[]> hasher;
+    private final ExecutorService pool;
+    private final Queue<Entry> window;
+    private final int windowSize;
+    private boolean markPending;
+
+    HashPipeline(HashWriter writer, WalkStatistics stats, Checkpoint checkpoint, int threads,
+                 Function<String, byte[]> hasher) {
+        this.writer = writer;
+        this.stats = stats;
+        this.checkpoint = checkpoint;
+        this.hasher = hasher;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        this.windowSize = threads * WINDOW_PER_THREAD;
+        this.window = new ArrayDeque<>(windowSize);
+    }
+
+    void submit(String path) throws IOException {
+        if (pool == null) {
+            write(path, hasher.apply(path));
+            return;
+        }
+        if (window.size() == windowSize) {
+            writeHead();
+        }
+        window.add(new Entry(path, pool.submit(() -> hasher.apply(path))));
+    }
+
+    void fail(String path) throws IOException {
+        if (pool == null) {
+            write(path, zero());
+            return;
+        }
+        if (window.size() == windowSize) {
+            writeHead();
+        }
+        window.add(new Entry(path, CompletableFuture.completedFuture(zero())));
+    }
+
+    /**
+     * Marks that all input before <tt>inputOffset</tt> has been submitted.
+     * When a checkpoint is due, it is saved once everything submitted before the mark is written.
+     * At most one mark waits in the window, so marks take no room from files being hashed.
+     */
+    void mark(long inputOffset) throws IOException {
+        if (checkpoint == null || markPending || !checkpoint.due()) {
+            return;
+        }
+        if (pool == null) {
+            save(inputOffset);
+            return;
+        }
+        if (window.size() == windowSize) {
+            writeHead();
+        }
+        window.add(new Entry(inputOffset));
+        markPending = true;
+    }
+
+    private void save(long inputOffset) throws IOException {
+        writer.flush();
+        checkpoint.save(inputOffset, writer.position());
+    }
+
+    private void writeHead() throws IOException {
+        Entry entry = window.remove();
+        if (entry.path == null) {
+            markPending = false;
+            save(entry.inputOffset);
+            return;
+        }
+        byte[] digest;
+        try {
+            digest = entry.hash.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while hashing " + entry.path);
+        } catch (ExecutionException e) {
+            digest = zero();
+        }
+        write(entry.path, digest);
+    }
+
+    private byte[] zero() {
+        return new byte[writer.digestLength()];
+    }
+
+    private void write(String path, byte[] digest) throws IOException {
+        writer.write(path, digest);
+        stats.written(!isZero(digest));
+    }
+
+    private static boolean isZero(byte[] digest) {
+        for (byte b : digest) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return digest.length > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!window.isEmpty()) {
+                writeHead();
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String path;
+        private final Future<byte[]> hash;
+        private final long inputOffset;
+
+        private Entry(String path, Future<byte[]> hash) {
+            this.path = path;
+            this.hash = hash;
+            this.inputOffset = -1;
+        }
+
+        private Entry(long inputOffset) {
+            this.path = null;
+            this.hash = null;
+            this.inputOffset = inputOffset;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats result lines straight into one reusable byte buffer which is written out when full.
+ */
+class HashWriter implements Closeable {
+    static private final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    static private final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final int[] parts;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long flushed;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    HashWriter(OutputStream out, int[] parts) {
+        this(out, parts, 0);
+    }
+
+    /**
+     * Writer appending to output which already holds <tt>position</tt> bytes.
+     */
+    HashWriter(OutputStream out, int[] parts, long position) {
+        this.out = out;
+        this.parts = parts;
+        this.flushed = position;
+    }
+
+    long position() {
+        return flushed + buffer.position();
+    }
+
+    int digestLength() {
+        int length = 0;
+        for (int part : parts) {
+            length += part;
+        }
+        return length;
+    }
+
+    void write(String path, byte[] digest) throws IOException {
+        ensure(2 * digest.length + parts.length);
+        int offset = 0;
+        for (int part : parts) {
+            for (int i = offset; i < offset + part; i++) {
+                buffer.put(HEX[(digest[i] >> 4) & 15]);
+                buffer.put(HEX[digest[i] & 15]);
+            }
+            buffer.put((byte) ' ');
+            offset += part;
+        }
+        writePath(path);
+        ensure(1);
+        buffer.put((byte) '\n');
+    }
+
+    private void writePath(String path) throws IOException {
+        int length = path.length();
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if (c >= 0x80) {
+                encode(CharBuffer.wrap(path, i, length));
+                return;
+            }
+            ensure(1);
+            buffer.put((byte) c);
+        }
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+            flush();
+        }
+        while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+            flush();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        flushed += buffer.position();
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+
+interface Hasher {
+    String name();
+
+    int length();
+
+    void reset();
+
+    /**
+     * Consumes all remaining bytes of <tt>block</tt>.
+     */
+    void update(ByteBuffer block);
+
+    /**
+     * Writes {@link #length()} bytes of the digest, most significant byte first.
+     */
+    void digest(byte[] out, int offset);
+}
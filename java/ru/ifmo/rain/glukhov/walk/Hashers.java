@@ -0,0 +1,53 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Hashers {
+    static final String DEFAULT = "fnv32";
+
+    private Hashers() {
+    }
+
+    static Hasher create(String name) {
+        switch (name) {
+            case "fnv32":
+                return new Fnv32Hasher();
+            case "fnv64":
+                return new Fnv64Hasher();
+            case "xxh64":
+                return new XxHash64Hasher();
+            case "sha256":
+                return new Sha256Hasher();
+            default:
+                throw new IllegalArgumentException("unknown hash algorithm " + name);
+        }
+    }
+
+    static int[] lengths(Hasher hasher) {
+        if (hasher instanceof CompositeHasher) {
+            Hasher[] parts = ((CompositeHasher) hasher).parts();
+            int[] lengths = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                lengths[i] = parts[i].length();
+            }
+            return lengths;
+        }
+        return new int[]{hasher.length()};
+    }
+
+    /**
+     * Creates hasher for comma-separated list of algorithms, computing all of them in one pass.
+     */
+    static Hasher createAll(String names) {
+        String[] parts = names.split(",");
+        if (parts.length == 1) {
+            return create(parts[0]);
+        }
+        List<Hasher> hashers = new ArrayList<>();
+        for (String part : parts) {
+            hashers.add(create(part));
+        }
+        return new CompositeHasher(hashers);
+    }
+}
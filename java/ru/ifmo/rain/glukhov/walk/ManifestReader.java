@@ -0,0 +1,77 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines like {@link java.io.BufferedReader#readLine()}, tracking byte offset of the next line
+ * so a run can be resumed from it.
+ */
+class ManifestReader implements Closeable {
+    static private final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] line = new byte[256];
+    private long offset;
+
+    ManifestReader(FileChannel channel, long offset) throws IOException {
+        this.channel = channel;
+        this.offset = offset;
+        channel.position(offset);
+        buffer.flip();
+    }
+
+    /**
+     * Byte offset just after the last line returned.
+     */
+    long offset() {
+        return offset;
+    }
+
+    String readLine() throws IOException {
+        int length = 0;
+        while (fill()) {
+            byte b = buffer.get();
+            offset++;
+            if (b == '\n') {
+                return decode(length);
+            }
+            if (b == '\r') {
+                if (fill() && buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                    offset++;
+                }
+                return decode(length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, 2 * length);
+            }
+            line[length++] = b;
+        }
+        return length == 0 ? null : decode(length);
+    }
+
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read > 0 || read == 0 && fill();
+    }
+
+    private String decode(int length) {
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
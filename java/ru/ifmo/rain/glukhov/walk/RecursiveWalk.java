@@ -0,0 +1,49 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Walk which expands directories of the input into the files below them, in <tt>Files.walkFileTree</tt> order.
+ * Files are hashed as they are found, in parallel with <tt>-threads</tt>,
+ * but the traversal itself runs on the calling thread, which also writes the output,
+ * so on trees of many small files the directory scan rather than hashing bounds the throughput.
+ */
+public class RecursiveWalk {
+    public static void main(String[] args) {
+        Walk.run(args, true);
+    }
+
+    static void submitTree(HashPipeline pipeline, String root) throws IOException {
+        Path start;
+        try {
+            start = Paths.get(root);
+        } catch (InvalidPathException e) {
+            pipeline.fail(root);
+            return;
+        }
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                pipeline.submit(file.toString());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                pipeline.fail(file.toString());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                // Listing broke off midway: report the directory itself and go on with the rest of the tree.
+                if (exc != null) {
+                    pipeline.fail(dir.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+class Sha256Hasher implements Hasher {
+    private final MessageDigest digest;
+
+    Sha256Hasher() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "sha256";
+    }
+
+    @Override
+    public int length() {
+        return 32;
+    }
+
+    @Override
+    public void reset() {
+        digest.reset();
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        digest.update(block);
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        try {
+            digest.digest(out, offset, 32);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package ru.ifmo.rain.glukhov.walk;
 
 import java.io.*;
-
-import static java.lang.Math.min;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.function.Function;
 
 public class Walk {
-    static private int BLOCK_LENGTH = 1024;
-    static private int x0 = 0x01000193;
-
     public static void main(String[] args) {
+        run(args, false);
+    }
+
+    static void run(String[] args, boolean recursive) {
         if (args == null) {
             System.err.println("Error: null args");
             return;
@@ -19,32 +23,88 @@ public class Walk {
                 System.err.println("Error: i/o file null args");
                 return;
             }
-        try (BufferedReader fileReader = new BufferedReader(new FileReader(args[0]));
-             BufferedWriter fileWriter = new BufferedWriter(new FileWriter(args[1]))) {
-            String path = "";
-            while ((path = fileReader.readLine()) != null) {
-                int hval = 0x811c9dc5;
-                try (InputStream reader = new FileInputStream(path)) {
-                    while (reader.available() > 0) {
-                        int size = min(BLOCK_LENGTH, reader.available());
-                        byte[] block = new byte[size];
-                        int tmp = reader.read(block, 0, size);
-                        for (int i = 0; i < size; i++) {
-                            hval = (hval * x0) ^ (block[i] & 255);
-                        }
+        WalkOptions options;
+        try {
+            options = WalkOptions.parse(args, 2);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+        Hasher prototype = Hashers.createAll(options.algorithms);
+        HashCache cache = options.cache == null ? null : HashCache.load(options.cache, prototype.name());
+        Checkpoint checkpoint = null;
+        if (options.checkpoint != null) {
+            try {
+                checkpoint = Checkpoint.open(options.checkpoint, args[0], args[1]);
+            } catch (IOException | InvalidPathException e) {
+                System.err.println("Error: " + e.getMessage());
+                return;
+            }
+        }
+        long inputOffset = checkpoint == null ? 0 : checkpoint.inputOffset();
+        long outputPosition = checkpoint == null ? 0 : checkpoint.outputPosition();
+        FileKeyDeduplicator dedup = options.dedup ? new FileKeyDeduplicator() : null;
+        boolean completed = false;
+        try (WalkStatistics stats = new WalkStatistics();
+             FileChannel input = FileChannel.open(Paths.get(args[0]));
+             ManifestReader fileReader = new ManifestReader(input, inputOffset);
+             HashWriter fileWriter = new HashWriter(openOutput(args[1], outputPosition), Hashers.lengths(prototype),
+                     outputPosition);
+             ChunkIndex chunks = options.chunks == null ? null : new ChunkIndex(options.chunks)) {
+            ThreadLocal<FileHasher> fileHashers = ThreadLocal.withInitial(() -> chunks == null
+                    ? new FileHasher(Hashers.createAll(options.algorithms), stats)
+                    : new FileHasher(Hashers.createAll(options.algorithms), new ChunkingHasher(chunks), stats));
+            Function<String, byte[]> plain = path -> fileHashers.get().hash(path);
+            Function<String, byte[]> cached = cache == null ? plain : path -> cache.hash(path, plain);
+            Function<String, byte[]> hasher = dedup == null ? cached : path -> dedup.hash(path, cached);
+            stats.start(options.progress);
+            try (HashPipeline pipeline = new HashPipeline(fileWriter, stats, checkpoint, options.threads, hasher)) {
+                String path;
+                while ((path = fileReader.readLine()) != null) {
+                    if (recursive) {
+                        RecursiveWalk.submitTree(pipeline, path);
+                    } else {
+                        pipeline.submit(path);
                     }
-                    fileWriter.write(String.format("%08x", hval) + " " + path + '\n');
-                    reader.close();
-                } catch (FileNotFoundException e) {
-                    fileWriter.write(String.format("%08x", 0) + " " + path + '\n');
+                    pipeline.mark(fileReader.offset());
                 }
             }
-            fileReader.close();
-            fileWriter.close();
-        } catch (FileNotFoundException e) {
+            if (chunks != null) {
+                System.err.println(chunks.summary());
+            }
+            completed = true;
+        } catch (FileNotFoundException | NoSuchFileException | InvalidPathException e) {
             System.err.println("Error: input/output file not found");
         } catch (IOException e) {
             System.err.println("Error: input/output");
         }
+        // Only once the output is flushed and closed, otherwise a failed close would leave nothing to resume from.
+        if (completed && checkpoint != null) {
+            try {
+                checkpoint.delete();
+            } catch (IOException e) {
+                System.err.println("Error: cannot delete checkpoint " + options.checkpoint);
+            }
+        }
+        if (dedup != null) {
+            System.err.println(dedup.summary());
+        }
+        if (cache != null) {
+            try {
+                cache.save(options.cache, completed && inputOffset == 0);
+            } catch (IOException e) {
+                System.err.println("Error: cannot write cache " + options.cache);
+            }
+            System.err.println(cache.summary());
+        }
+    }
+
+    private static OutputStream openOutput(String name, long position) throws IOException {
+        if (position == 0) {
+            return new FileOutputStream(name);
+        }
+        FileOutputStream out = new FileOutputStream(name, true);
+        out.getChannel().truncate(position);
+        return out;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Throughput benchmark for Walk hashing strategies.
+ * Usage: <tt>WalkBenchmark dir [case...]</tt>, cases are <tt>empty</tt>, <tt>small</tt>,
+ * <tt>medium</tt> and <tt>large</tt>. Generated files are kept in <tt>dir</tt> and reused by later runs.
+ */
+public class WalkBenchmark {
+    static private final int WARMUP = 2;
+    static private final int MEASUREMENTS = 5;
+    static private final String[] ALGORITHMS = {"fnv32", "fnv64", "xxh64", "sha256"};
+
+    private static final Map<String, long[]> CASES = new LinkedHashMap<>();
+
+    static {
+        CASES.put("empty", new long[]{10_000, 0});
+        CASES.put("small", new long[]{10_000, 100});
+        CASES.put("medium", new long[]{100, 1 << 20});
+        CASES.put("large", new long[]{1, 1 << 30});
+    }
+
+    public static void main(String[] args) {
+        if (args == null || args.length < 1 || args[0] == null) {
+            System.err.println("Error: incorrect amount of arguments");
+            return;
+        }
+        List<String> cases = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : new ArrayList<>(CASES.keySet());
+        int cores = Runtime.getRuntime().availableProcessors();
+        try {
+            for (String name : cases) {
+                long[] spec = CASES.get(name);
+                if (spec == null) {
+                    System.err.println("Error: unknown case " + name);
+                    return;
+                }
+                List<String> files = generate(Paths.get(args[0], name), (int) spec[0], spec[1]);
+                for (String algorithm : ALGORITHMS) {
+                    report(name, algorithm, 1, files, spec[1]);
+                    if (cores > 1) {
+                        report(name, algorithm, cores, files, spec[1]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    private static List<String> generate(Path dir, int count, long size) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(size);
+        ByteBuffer block = ByteBuffer.allocate(1 << 16);
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = dir.resolve(Integer.toString(i));
+            if (!Files.exists(file) || Files.size(file) != size) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    for (long written = 0; written < size; ) {
+                        block.clear();
+                        random.nextBytes(block.array());
+                        block.limit((int) Math.min(block.capacity(), size - written));
+                        written += channel.write(block);
+                    }
+                }
+            }
+            files.add(file.toString());
+        }
+        return files;
+    }
+
+    private static void report(String name, String algorithm, int threads, List<String> files, long size)
+            throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            run(algorithm, threads, files);
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            long time = run(algorithm, threads, files);
+            best = Math.min(best, time);
+            total += time;
+        }
+        double seconds = total / 1e9 / MEASUREMENTS;
+        double megabytes = (double) size * files.size() / (1 << 20);
+        System.out.println(String.format("%-7s %-7s threads=%-3d %10.1f MB/s %12.1f files/s  (best %.3f s, mean %.3f s)",
+                name, algorithm, threads, megabytes / seconds, files.size() / seconds, best / 1e9, seconds));
+    }
+
+    private static long run(String algorithm, int threads, List<String> files) throws IOException {
+        WalkStatistics stats = new WalkStatistics();
+        ThreadLocal<FileHasher> hashers = ThreadLocal.withInitial(() -> new FileHasher(Hashers.createAll(algorithm), stats));
+        Function<String, byte[]> hasher = path -> hashers.get().hash(path);
+        long start = System.nanoTime();
+        try (HashWriter writer = new HashWriter(new NullOutputStream(), Hashers.lengths(Hashers.createAll(algorithm)));
+             HashPipeline pipeline = new HashPipeline(writer, stats, null, threads, hasher)) {
+            for (String file : files) {
+                pipeline.submit(file);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
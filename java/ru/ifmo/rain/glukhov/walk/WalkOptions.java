@@ -0,0 +1,79 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+class WalkOptions {
+    int threads = 1;
+    Path cache;
+    String algorithms = Hashers.DEFAULT;
+    Path chunks;
+    int progress;
+    boolean dedup;
+    Path checkpoint;
+
+    static WalkOptions parse(String[] args, int from) {
+        WalkOptions options = new WalkOptions();
+        for (int i = from; i < args.length; i += 2) {
+            if ("-dedup".equals(args[i])) {
+                options.dedup = true;
+                i--;
+                continue;
+            }
+            if (args[i] == null || i + 1 >= args.length || args[i + 1] == null) {
+                throw new IllegalArgumentException("option without value");
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-threads":
+                    options.threads = parsePositive(args[i], value);
+                    break;
+                case "-cache":
+                    options.cache = parsePath(args[i], value);
+                    break;
+                case "-hash":
+                    Hashers.createAll(value);
+                    options.algorithms = value;
+                    break;
+                case "-chunks":
+                    options.chunks = parsePath(args[i], value);
+                    break;
+                case "-progress":
+                    options.progress = parsePositive(args[i], value);
+                    break;
+                case "-checkpoint":
+                    options.checkpoint = parsePath(args[i], value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (options.chunks != null && options.cache != null) {
+            throw new IllegalArgumentException("-chunks needs every file to be read and cannot be used with -cache");
+        }
+        if (options.chunks != null && options.checkpoint != null) {
+            throw new IllegalArgumentException("-chunks reports on the whole input and cannot be used with -checkpoint");
+        }
+        return options;
+    }
+
+    private static Path parsePath(String name, String value) {
+        try {
+            return Paths.get(value);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException(name + " is not a valid path");
+        }
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(name + " must be a positive number");
+    }
+}
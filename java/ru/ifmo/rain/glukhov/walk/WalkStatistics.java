@@ -0,0 +1,166 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a Walk run, exported as MBean and optionally printed to stderr every few seconds.
+ */
+class WalkStatistics implements WalkStatisticsMBean, Closeable {
+    static private final String NAME = "ru.ifmo.rain.glukhov.walk:type=WalkStatistics";
+    static private final int SLOWEST = 10;
+    static private final int WINDOW = 5;
+
+    private final long start = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final PriorityQueue<Timing> slowest = new PriorityQueue<>();
+    private volatile long slowThreshold;
+    private final long[] sampleBytes = new long[WINDOW + 1];
+    private final long[] sampleTimes = new long[WINDOW + 1];
+    private int samples;
+    private ScheduledExecutorService timer;
+    private ObjectName name;
+
+    /**
+     * Registers the MBean, starts sampling throughput every second
+     * and, if <tt>period</tt> is positive, prints progress every <tt>period</tt> seconds.
+     */
+    void start(int period) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+                name = objectName;
+            }
+        } catch (JMException ignored) {
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "walk-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+        if (period > 0) {
+            timer.scheduleAtFixedRate(() -> System.err.println(progress()), period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    void written(boolean ok) {
+        files.increment();
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    void read(String path, long size, long nanos) {
+        bytes.add(size);
+        if (nanos > slowThreshold) {
+            synchronized (slowest) {
+                slowest.add(new Timing(path, nanos));
+                if (slowest.size() > SLOWEST) {
+                    slowest.poll();
+                    slowThreshold = slowest.peek().nanos;
+                }
+            }
+        }
+    }
+
+    private synchronized void sample() {
+        sampleBytes[samples % sampleBytes.length] = bytes.sum();
+        sampleTimes[samples % sampleTimes.length] = System.nanoTime();
+        samples++;
+    }
+
+    String progress() {
+        String[] slow = getSlowestFiles();
+        return String.format("Progress: %d files, %d bytes, %.1f MB/s, %d errors%s",
+                files.sum(), bytes.sum(), getThroughput() / (1 << 20), errors.sum(),
+                slow.length == 0 ? "" : ", slowest " + slow[0]);
+    }
+
+    @Override
+    public long getFilesDone() {
+        return files.sum();
+    }
+
+    @Override
+    public long getBytesHashed() {
+        return bytes.sum();
+    }
+
+    @Override
+    public synchronized double getThroughput() {
+        long fromBytes = 0;
+        long fromTime = start;
+        if (samples > 0) {
+            int oldest = samples < sampleBytes.length ? 0 : samples % sampleBytes.length;
+            fromBytes = sampleBytes[oldest];
+            fromTime = sampleTimes[oldest];
+        }
+        return (bytes.sum() - fromBytes) * 1e9 / Math.max(1, System.nanoTime() - fromTime);
+    }
+
+    @Override
+    public double getAverageThroughput() {
+        return bytes.sum() * 1e9 / Math.max(1, System.nanoTime() - start);
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public String[] getSlowestFiles() {
+        Timing[] timings;
+        synchronized (slowest) {
+            timings = slowest.toArray(new Timing[0]);
+        }
+        Arrays.sort(timings, (a, b) -> Long.compare(b.nanos, a.nanos));
+        String[] result = new String[timings.length];
+        for (int i = 0; i < timings.length; i++) {
+            result[i] = String.format("%s (%.3f s)", timings[i].path, timings[i].nanos / 1e9);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException ignored) {
+            }
+        }
+    }
+
+    private static class Timing implements Comparable<Timing> {
+        private final String path;
+        private final long nanos;
+
+        private Timing(String path, long nanos) {
+            this.path = path;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(Timing other) {
+            return Long.compare(nanos, other.nanos);
+        }
+    }
+}
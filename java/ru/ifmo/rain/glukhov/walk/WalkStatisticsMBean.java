@@ -0,0 +1,21 @@
+package ru.ifmo.rain.glukhov.walk;
+
+public interface WalkStatisticsMBean {
+    long getFilesDone();
+
+    long getBytesHashed();
+
+    /**
+     * Bytes per second over the last few seconds, as printed by <tt>-progress</tt>.
+     */
+    double getThroughput();
+
+    /**
+     * Bytes per second since the start of the run.
+     */
+    double getAverageThroughput();
+
+    long getErrors();
+
+    String[] getSlowestFiles();
+}
@@ -0,0 +1,120 @@
+package ru.ifmo.rain.glukhov.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static java.lang.Long.rotateLeft;
+
+class XxHash64Hasher implements Hasher {
+    static private final long P1 = 0x9E3779B185EBCA87L;
+    static private final long P2 = 0xC2B2AE3D27D4EB4FL;
+    static private final long P3 = 0x165667B19E3779F9L;
+    static private final long P4 = 0x85EBCA77C2B2AE63L;
+    static private final long P5 = 0x27D4EB2F165667C5L;
+    static private final int STRIPE = 32;
+
+    private final ByteBuffer memory = ByteBuffer.allocate(STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+    private long v1, v2, v3, v4;
+    private long total;
+
+    XxHash64Hasher() {
+        reset();
+    }
+
+    @Override
+    public String name() {
+        return "xxh64";
+    }
+
+    @Override
+    public int length() {
+        return 8;
+    }
+
+    @Override
+    public void reset() {
+        v1 = P1 + P2;
+        v2 = P2;
+        v3 = 0;
+        v4 = -P1;
+        total = 0;
+        memory.clear();
+    }
+
+    @Override
+    public void update(ByteBuffer block) {
+        total += block.remaining();
+        if (memory.position() > 0) {
+            while (memory.hasRemaining() && block.hasRemaining()) {
+                memory.put(block.get());
+            }
+            if (memory.hasRemaining()) {
+                return;
+            }
+            memory.flip();
+            stripe(memory);
+            memory.clear();
+        }
+        while (block.remaining() >= STRIPE) {
+            stripe(block);
+        }
+        while (block.hasRemaining()) {
+            memory.put(block.get());
+        }
+    }
+
+    private void stripe(ByteBuffer block) {
+        v1 = round(v1, readLong(block));
+        v2 = round(v2, readLong(block));
+        v3 = round(v3, readLong(block));
+        v4 = round(v4, readLong(block));
+    }
+
+    private static long readLong(ByteBuffer block) {
+        long value = block.getLong();
+        return block.order() == ByteOrder.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    private static long round(long acc, long input) {
+        return rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        return (acc ^ round(0, value)) * P1 + P4;
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        long h;
+        if (total >= STRIPE) {
+            h = rotateLeft(v1, 1) + rotateLeft(v2, 7) + rotateLeft(v3, 12) + rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = P5;
+        }
+        h += total;
+        int limit = memory.position();
+        int i = 0;
+        for (; i + 8 <= limit; i += 8) {
+            h = rotateLeft(h ^ round(0, memory.getLong(i)), 27) * P1 + P4;
+        }
+        if (i + 4 <= limit) {
+            h = rotateLeft(h ^ (memory.getInt(i) & 0xFFFFFFFFL) * P1, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < limit; i++) {
+            h = rotateLeft(h ^ (memory.get(i) & 255) * P5, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        for (int j = 0; j < 8; j++) {
+            out[offset + j] = (byte) (h >>> (56 - 8 * j));
+        }
+    }
+}